@@ -0,0 +1,163 @@
+#include <jni.h>
+#include <math.h>
+#include <stdint.h>
+#include <stdlib.h>
+
+#include "rnaudio_dsp.h"
+
+#if defined(__SSE__)
+#include <xmmintrin.h>
+#endif
+#if defined(RNAUDIO_HAVE_NEON) && defined(__ANDROID__) && defined(__arm__)
+#include <cpu-features.h>
+#endif
+
+// Same 67 tap low pass filter as WavConverter.lowPassFilter, in
+// float. The filter is symmetric, so the Java convolution
+// sum(x[n - i] * c[i]) can be computed as a forward dot product.
+#define TAPS RNAUDIO_TAPS
+#define TAPS_PADDED RNAUDIO_TAPS_PADDED
+
+static const float coefficients[TAPS_PADDED] = {
+  -0.0117092317869676f, 0.0308750527800459f, -0.00738784532410977f, -0.0127160802769717f, -0.00507069946874753f,
+  0.00458778315123943f, 0.00931287499494599f, 0.00607122438794847f, -0.00256089459687806f, -0.00957308706102434f,
+  -0.00828980690747116f, 0.00100506585230833f, 0.0105568267498244f, 0.0112252366103502f, 0.00100794601937544f,
+  -0.0117450230972097f, -0.0149937833567458f, -0.00392357154067098f, 0.0129539613312175f, 0.0199789996574662f,
+  0.00832583108612983f, -0.0140627429055849f, -0.0269921317748012f, -0.0153663212767268f, 0.0149976483390043f,
+  0.0381120598515691f, 0.0281192005901666f, -0.0157090309990863f, -0.0605272748412227f, -0.0588464738424515f,
+  0.0161533750132946f, 0.144915996973263f, 0.267004511178648f, 0.317029472426119f, 0.267004511178648f,
+  0.144915996973263f, 0.0161533750132946f, -0.0588464738424515f, -0.0605272748412227f, -0.0157090309990863f,
+  0.0281192005901666f, 0.0381120598515691f, 0.0149976483390043f, -0.0153663212767268f, -0.0269921317748012f,
+  -0.0140627429055849f, 0.00832583108612983f, 0.0199789996574662f, 0.0129539613312175f, -0.00392357154067098f,
+  -0.0149937833567458f, -0.0117450230972097f, 0.00100794601937544f, 0.0112252366103502f, 0.0105568267498244f,
+  0.00100506585230833f, -0.00828980690747116f, -0.00957308706102434f, -0.00256089459687806f, 0.00607122438794847f,
+  0.00931287499494599f, 0.00458778315123943f, -0.00507069946874753f, -0.0127160802769717f, -0.00738784532410977f,
+  0.0308750527800459f, -0.0117092317869676f,
+  0.0f, // padding so the vector loops can always read 4 taps at a time
+};
+
+static float dot_scalar(const float *x, const float *c) {
+  float y = 0.0f;
+  for (int i = 0; i < TAPS; i++) {
+    y += x[i] * c[i];
+  }
+  return y;
+}
+
+#if defined(__SSE__)
+static float dot_sse(const float *x, const float *c) {
+  __m128 acc = _mm_setzero_ps();
+  for (int i = 0; i < TAPS_PADDED; i += 4) {
+    acc = _mm_add_ps(acc, _mm_mul_ps(_mm_loadu_ps(x + i), _mm_loadu_ps(c + i)));
+  }
+  float lanes[4];
+  _mm_storeu_ps(lanes, acc);
+  return (lanes[0] + lanes[1]) + (lanes[2] + lanes[3]);
+}
+#endif
+
+// Chosen once in JNI_OnLoad from what the CPU actually supports.
+static float (*dot)(const float *x, const float *c) = dot_scalar;
+static const char *kernel_name = "scalar";
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+#if defined(RNAUDIO_HAVE_NEON)
+#if defined(__ANDROID__) && defined(__arm__)
+  // NEON is optional on armeabi-v7a
+  if (android_getCpuFamily() == ANDROID_CPU_FAMILY_ARM &&
+      (android_getCpuFeatures() & ANDROID_CPU_ARM_FEATURE_NEON) != 0) {
+    dot = rnaudio_dot_neon;
+    kernel_name = "neon";
+  }
+#else
+  dot = rnaudio_dot_neon;
+  kernel_name = "neon";
+#endif
+#elif defined(__SSE__)
+  // SSE is part of every x86 ABI Android (and the host build) targets
+  dot = dot_sse;
+  kernel_name = "sse";
+#endif
+  return JNI_VERSION_1_6;
+}
+
+JNIEXPORT jstring JNICALL
+Java_com_rnim_rn_audio_NativeDsp_kernelName(JNIEnv *env, jclass clazz) {
+  return (*env)->NewStringUTF(env, kernel_name);
+}
+
+// JNI allocation failures leave an OutOfMemoryError pending. Clear it so
+// every failure is reported the same way, as NULL, and the caller can fall
+// back to the Java resampler.
+static jshortArray new_short_array(JNIEnv *env, jsize length) {
+  jshortArray array = (*env)->NewShortArray(env, length);
+  if (array == NULL) {
+    (*env)->ExceptionClear(env);
+  }
+  return array;
+}
+
+// Interpolate 44.1kHz up to 48kHz, low pass filter, and keep every third
+// sample. Only the filter outputs that survive decimation are computed.
+JNIEXPORT jshortArray JNICALL
+Java_com_rnim_rn_audio_NativeDsp_downsample441to16(JNIEnv *env, jclass clazz, jshortArray input) {
+  jsize inLength = (*env)->GetArrayLength(env, input);
+  int32_t interpolatedLength = (int32_t) (((int64_t) inLength * 48000) / 44100);
+
+  int32_t outLength = interpolatedLength > TAPS ? (interpolatedLength - TAPS) / 3 : 0;
+  if (inLength < 2 || outLength == 0) {
+    return new_short_array(env, 0);
+  }
+
+  float *interpolated = (float *) malloc((size_t) interpolatedLength * sizeof(float));
+  if (interpolated == NULL) {
+    return NULL;
+  }
+
+  jshort *in = (*env)->GetShortArrayElements(env, input, NULL);
+  if (in == NULL) {
+    (*env)->ExceptionClear(env);
+    free(interpolated);
+    return NULL;
+  }
+
+  // Input position is outIndex * 147 / 160 (44100 / 48000), tracked in
+  // integers so there's no per-sample division.
+  const float fracScale = 1.0f / 160.0f;
+  int32_t inIndex = 0;
+  int32_t remainder = 0;
+  for (int32_t outIndex = 0; outIndex < interpolatedLength; outIndex++) {
+    int32_t i0 = inIndex < inLength - 1 ? inIndex : inLength - 2;
+    float frac = (float) (inIndex - i0) + remainder * fracScale;
+    float y0 = in[i0];
+    float y1 = in[i0 + 1];
+    interpolated[outIndex] = y0 + frac * (y1 - y0);
+
+    remainder += 147;
+    if (remainder >= 160) {
+      remainder -= 160;
+      inIndex++;
+    }
+  }
+
+  (*env)->ReleaseShortArrayElements(env, input, in, JNI_ABORT);
+
+  jshort *out = (jshort *) malloc((size_t) outLength * sizeof(jshort));
+  if (out == NULL) {
+    free(interpolated);
+    return NULL;
+  }
+
+  for (int32_t j = 0; j < outLength; j++) {
+    float y = dot(interpolated + 1 + 3 * j, coefficients);
+    out[j] = (jshort) (int32_t) floorf(y + 0.5f);
+  }
+  free(interpolated);
+
+  jshortArray result = new_short_array(env, outLength);
+  if (result != NULL) {
+    (*env)->SetShortArrayRegion(env, result, 0, outLength, out);
+  }
+  free(out);
+  return result;
+}
@@ -0,0 +1,12 @@
+#ifndef RNAUDIO_DSP_H
+#define RNAUDIO_DSP_H
+
+#define RNAUDIO_TAPS 67
+// Coefficients are zero padded to a multiple of 4 for the vector kernels
+#define RNAUDIO_TAPS_PADDED 68
+
+#if defined(RNAUDIO_HAVE_NEON)
+float rnaudio_dot_neon(const float *x, const float *c);
+#endif
+
+#endif
@@ -0,0 +1,15 @@
+#include <arm_neon.h>
+
+#include "rnaudio_dsp.h"
+
+// This file is compiled with NEON enabled even on armeabi-v7a, where the
+// rest of the library isn't. It is only called once JNI_OnLoad has checked
+// that the CPU supports NEON.
+float rnaudio_dot_neon(const float *x, const float *c) {
+  float32x4_t acc = vdupq_n_f32(0.0f);
+  for (int i = 0; i < RNAUDIO_TAPS_PADDED; i += 4) {
+    acc = vmlaq_f32(acc, vld1q_f32(x + i), vld1q_f32(c + i));
+  }
+  float32x2_t sum = vadd_f32(vget_low_f32(acc), vget_high_f32(acc));
+  return vget_lane_f32(vpadd_f32(sum, sum), 0);
+}
@@ -0,0 +1,116 @@
+package com.rnim.rn.audio;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The recording loop: reads from an AudioSource and writes little-endian
+ * 16-bit PCM until the recording flag is cleared. Has no Android
+ * dependencies so it can be driven on a plain JVM.
+ */
+class AudioCapture {
+  public interface Listener {
+    /**
+     * Called on the recording thread after each chunk has been written.
+     */
+    void onChunkWritten(int samples);
+
+    /**
+     * Called on the recording thread instead of onChunkWritten when a chunk
+     * couldn't be written. Recording carries on with the next chunk.
+     */
+    void onWriteFailed(int samples, IOException e);
+  }
+
+  private static final int BYTES_PER_ELEMENT = 2; // 2 bytes in 16bit format
+  private static final int EMPTY_READ_BACKOFF_MILLIS = 5;
+
+  private final AudioSource source;
+  private final AtomicBoolean isRecording;
+  private final int bufferElements;
+  private Listener listener;
+
+  public AudioCapture(AudioSource source, AtomicBoolean isRecording, int bufferElements) {
+    this.source = source;
+    this.isRecording = isRecording;
+    this.bufferElements = bufferElements;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * @return 0 once recording is stopped, or the negative error code the
+   * source returned if it failed first
+   * @throws IOException if the file couldn't be opened
+   */
+  public int writeAudioDataToFile(File file) throws IOException {
+    FileOutputStream os = new FileOutputStream(file);
+    try {
+      return writeAudioData(os);
+    } finally {
+      try {
+        os.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * @return 0 once recording is stopped, or the negative error code the
+   * source returned if it failed first
+   */
+  public int writeAudioData(OutputStream os) {
+    short[] sData = new short[bufferElements];
+    byte[] bData = new byte[bufferElements * BYTES_PER_ELEMENT];
+
+    while (isRecording.get()) {
+      // gets the voice output from microphone
+      int read = source.read(sData, 0, bufferElements);
+      if (read < 0) {
+        // e.g. ERROR_DEAD_OBJECT after the audio server restarts; retrying won't help
+        return read;
+      }
+      if (read == 0) {
+        // nothing yet (or the source was stopped first); don't spin
+        try {
+          Thread.sleep(EMPTY_READ_BACKOFF_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return 0;
+        }
+        continue;
+      }
+
+      try {
+        // only write what was actually read; short reads are normal
+        short2byte(sData, read, bData);
+        os.write(bData, 0, read * BYTES_PER_ELEMENT);
+      } catch (IOException e) {
+        e.printStackTrace();
+        if (listener != null) {
+          listener.onWriteFailed(read, e);
+        }
+        continue;
+      }
+
+      if (listener != null) {
+        listener.onChunkWritten(read);
+      }
+    }
+    return 0;
+  }
+
+  //convert short to byte
+  private static void short2byte(short[] sData, int length, byte[] bytes) {
+    for (int i = 0; i < length; i++) {
+      bytes[i * 2] = (byte) (sData[i] & 0x00FF);
+      bytes[(i * 2) + 1] = (byte) (sData[i] >> 8);
+    }
+  }
+}
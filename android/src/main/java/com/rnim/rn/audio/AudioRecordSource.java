@@ -0,0 +1,41 @@
+package com.rnim.rn.audio;
+
+import android.media.AudioRecord;
+
+/**
+ * AudioSource backed by the device microphone.
+ */
+class AudioRecordSource implements AudioSource {
+  private final AudioRecord recorder;
+  private final int sampleRate;
+
+  public AudioRecordSource(AudioRecord recorder, int sampleRate) {
+    this.recorder = recorder;
+    this.sampleRate = sampleRate;
+  }
+
+  @Override
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  @Override
+  public void start() {
+    recorder.startRecording();
+  }
+
+  @Override
+  public int read(short[] buffer, int offset, int length) {
+    return recorder.read(buffer, offset, length);
+  }
+
+  @Override
+  public void stop() {
+    recorder.stop();
+  }
+
+  @Override
+  public void release() {
+    recorder.release();
+  }
+}
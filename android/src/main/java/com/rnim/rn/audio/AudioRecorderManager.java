@@ -18,8 +18,6 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.io.*;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 import android.content.pm.PackageManager;
 import android.os.Environment;
@@ -32,8 +30,6 @@ import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.modules.core.PermissionAwareActivity;
 import com.facebook.react.modules.core.PermissionListener;
 
-import java.io.FileInputStream;
-
 class AudioRecorderManager extends ReactContextBaseJavaModule {
   private class Settings {
     public int sampleRate;
@@ -77,7 +73,7 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
   private static final int MY_PERMISSIONS_REQUEST_RECORD_AUDIO = 12345;
   private static Promise requestPromise;
 
-  private AudioRecord recorder = null;
+  private AudioSource recorder = null;
   private Thread recordingThread = null;
   private AtomicBoolean isRecordingAtomic = new AtomicBoolean(false);
 
@@ -95,6 +91,12 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
   public AudioRecorderManager(ReactApplicationContext reactContext) {
     super(reactContext);
     this.context = reactContext;
+
+    if (NativeDsp.isAvailable()) {
+      Log.i(TAG, "Using native DSP kernel: " + NativeDsp.kernelName());
+    } else {
+      Log.w(TAG, "Native DSP library not available, using Java resampler");
+    }
   }
 
   @Override
@@ -244,11 +246,11 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
       return;
     }
 
-    this.recorder = newRecorder;
+    this.recorder = new AudioRecordSource(newRecorder, newActualSampleRate);
     this.actualSampleRate = newActualSampleRate;
 
 
-    recorder.startRecording();
+    recorder.start();
     currentFilePath = filePath;
     recordingThread = new Thread(new Runnable() {
       public void run() {
@@ -261,136 +263,31 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
     promise.resolve(currentFilePath + ".pcm");
   }
 
-  //convert short to byte
-  private byte[] short2byte(short[] sData) {
-    int shortArrsize = sData.length;
-    byte[] bytes = new byte[shortArrsize * 2];
-    for (int i = 0; i < shortArrsize; i++) {
-      bytes[i * 2] = (byte) (sData[i] & 0x00FF);
-      bytes[(i * 2) + 1] = (byte) (sData[i] >> 8);
-      sData[i] = 0;
-    }
-    return bytes;
-
-  }
-
   private void writeAudioDataToFile() {
-    // Write the output audio in byte
-
-    short sData[] = new short[BufferElements2Rec];
-
     File file = getRawFile(currentFilePath);
     // Log.v(TAG, "Will write to " + file.getAbsolutePath());
 
-    FileOutputStream os = null;
+    final AudioSource source = recorder;
+    AudioCapture capture = new AudioCapture(source, isRecordingAtomic, BufferElements2Rec);
     try {
-      os = new FileOutputStream(file);
-    } catch (IOException e) {
-      Log.e(TAG, "Could not write file to path" + currentFilePath);
-      e.printStackTrace();
-    }
+      int result = capture.writeAudioDataToFile(file);
+      // Errors after stopRecording has cleared the flag are expected and ignored.
+      // Otherwise the recorder died (e.g. ERROR_DEAD_OBJECT), so end the recording here.
+      if (result < 0 && isRecordingAtomic.compareAndSet(true, false)) {
+        Log.e(TAG, "Recording stopped, audio source returned error " + result);
+        stopTimer();
+        source.release();
 
-    while (isRecordingAtomic.get()) {
-      // gets the voice output from microphone to byte format
-
-      recorder.read(sData, 0, BufferElements2Rec);
-      try {
-        // // writes the data to file from buffer
-        // // stores the voice buffer
-        byte bData[] = short2byte(sData);
-        os.write(bData, 0, BufferElements2Rec * BytesPerElement);
-      } catch (IOException e) {
-        e.printStackTrace();
+        WritableMap body = Arguments.createMap();
+        body.putInt("code", result);
+        sendEvent("recordingError", body);
       }
-    }
-    try {
-      os.close();
     } catch (IOException e) {
+      Log.e(TAG, "Could not write file to path" + currentFilePath);
       e.printStackTrace();
     }
   }
 
-  private void rawToWave(final File rawFile, final File waveFile) throws IOException {
-
-    byte[] rawData = new byte[(int) rawFile.length()];
-    DataInputStream input = null;
-    try {
-      input = new DataInputStream(new FileInputStream(rawFile));
-      input.read(rawData);
-    } finally {
-      if (input != null) {
-        input.close();
-      }
-    }
-
-    DataOutputStream output = null;
-    try {
-      // Audio data (conversion big endian -> little endian)
-      short[] shorts = new short[rawData.length / 2];
-        ByteBuffer
-          .wrap(rawData)
-          .order(ByteOrder.LITTLE_ENDIAN)
-          .asShortBuffer()
-          .get(shorts);
-
-      // Prepare the (possibly resampled) output audio data
-      short[] resampledShorts = this.resampleTo16kHz(shorts);
-
-        ByteBuffer bytes = ByteBuffer
-          .allocate(resampledShorts.length * 2)
-          .order(ByteOrder.LITTLE_ENDIAN);
-
-      for (short s : resampledShorts) {
-        bytes.putShort(s);
-      }
-
-      // We always resample to this rate now.
-      final int sampleRate = 16000;
-      int outputSize = bytes.capacity();
-
-      output = new DataOutputStream(new FileOutputStream(waveFile));
-      // WAVE header
-      // see http://ccrma.stanford.edu/courses/422/projects/WaveFormat/
-      writeString(output, "RIFF"); // chunk id
-      writeInt(output, 36 + outputSize); // chunk size
-      writeString(output, "WAVE"); // format
-      writeString(output, "fmt "); // subchunk 1 id
-      writeInt(output, 16); // subchunk 1 size
-      writeShort(output, (short) 1); // audio format (1 = PCM)
-      writeShort(output, (short) 1); // number of channels
-      writeInt(output, sampleRate); // sample rate
-      writeInt(output, sampleRate * 2); // byte rate
-      writeShort(output, (short) 2); // block align
-      writeShort(output, (short) 16); // bits per sample
-      writeString(output, "data"); // subchunk 2 id
-      writeInt(output, outputSize); // subchunk 2 size
-
-      output.write(bytes.array());
-    } finally {
-      if (output != null) {
-        output.close();
-      }
-    }
-  }
-
-  private void writeInt(final DataOutputStream output, final int value) throws IOException {
-    output.write(value >> 0);
-    output.write(value >> 8);
-    output.write(value >> 16);
-    output.write(value >> 24);
-  }
-
-  private void writeShort(final DataOutputStream output, final short value) throws IOException {
-    output.write(value >> 0);
-    output.write(value >> 8);
-  }
-
-  private void writeString(final DataOutputStream output, final String value) throws IOException {
-    for (int i = 0; i < value.length(); i++) {
-      output.write(value.charAt(i));
-    }
-  }
-
   @ReactMethod
   public void stopRecording(Promise promise) {
     // atomically set isRecordingAtomic to false if it is true. Otherwise throw an error.
@@ -408,9 +305,9 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
 
     try {
       recorder.stop();
+      recordingThread.join(); // wait for recordingThread to finish saving the file
       recorder.release();
       recorder = null;
-      recordingThread.join(); // wait for recordingThread to finish saving the file
     } catch (final RuntimeException e) {
       // https://developer.android.com/reference/android/media/MediaRecorder.html#stop()
       logAndRejectPromise(promise, "RUNTIME_EXCEPTION", "No valid audio data received. You may be using a device that can't record audio.");
@@ -424,7 +321,7 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
     File f1 = getRawFile(currentFilePath);
     File f2 = getWavFile(currentFilePath);
     try {
-      rawToWave(f1, f2);
+      WavConverter.rawToWave(f1, f2, actualSampleRate);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -466,7 +363,7 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
     File f1 = getRawFile(currentFilePath);
     File f2 = getWavFile(currentFilePath);
     try {
-      rawToWave(f1, f2);
+      WavConverter.rawToWave(f1, f2, actualSampleRate);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -507,110 +404,6 @@ class AudioRecorderManager extends ReactContextBaseJavaModule {
     promise.reject(errorCode, errorMessage);
   }
 
-  private short[] resampleTo16kHz(short[] input) {
-    switch (this.actualSampleRate) {
-    case 16000:
-    default:
-      return input;
-
-    case 48000:
-      return this.downsampleByN(input, 3);
-
-    case 44100:
-      return this.downsample441to16(input);
-    }
-  }
-  private short[] downsampleByN(short[] input, int factor) {
-    short[] output = new short[input.length / factor];
-
-    for (int i = 0; i < output.length; i++) {
-      output[i] = input[i * factor];
-    }
-
-    return output;
-  }
-
-  private double[] interpolate(short[] input) {
-    long outputSamples = (input.length * 48000L) / 44100L;
-    double[] output = new double[(int) outputSamples];
-
-    final double inPeriod = 1.0 / 44100;
-    final double outPeriod = 1.0 / 48000;
-
-    int inIndex = 0;
-    int outIndex = 0;
-
-    while (inIndex < (input.length - 1) && outIndex < output.length) {
-
-      // increment inIndex only as needed to keep it directly adjacent to the current
-      // output point in time.
-      while (((inIndex + 1) * inPeriod) < (outIndex * outPeriod)) {
-        inIndex++;
-      }
-
-      // Just a precaution...
-      if (inIndex >= input.length - 1) {
-        inIndex = input.length - 2;
-      }
-
-      double x0 = inIndex * inPeriod;
-      double y0 = input[inIndex];
-      double x1 = x0 + inPeriod;
-      double y1 = input[inIndex + 1];
-
-      double x = outIndex * outPeriod;
-      double y = y0 + (x - x0) * (y1 - y0) / (x1 - x0);
-
-      output[outIndex++] = y;
-    }
-
-    return output;
-  }
-
-  private short[] lowPassFilter(double[] input) {
-    final double[] c = new double[] {
-        -0.0117092317869676, 0.0308750527800459, -0.00738784532410977, -0.0127160802769717, -0.00507069946874753,
-        0.00458778315123943, 0.00931287499494599, 0.00607122438794847, -0.00256089459687806, -0.00957308706102434,
-        -0.00828980690747116, 0.00100506585230833, 0.0105568267498244, 0.0112252366103502, 0.00100794601937544,
-        -0.0117450230972097, -0.0149937833567458, -0.00392357154067098, 0.0129539613312175, 0.0199789996574662,
-        0.00832583108612983, -0.0140627429055849, -0.0269921317748012, -0.0153663212767268, 0.0149976483390043,
-        0.0381120598515691, 0.0281192005901666, -0.0157090309990863, -0.0605272748412227, -0.0588464738424515,
-        0.0161533750132946, 0.144915996973263, 0.267004511178648, 0.317029472426119, 0.267004511178648,
-        0.144915996973263, 0.0161533750132946, -0.0588464738424515, -0.0605272748412227, -0.0157090309990863,
-        0.0281192005901666, 0.0381120598515691, 0.0149976483390043, -0.0153663212767268, -0.0269921317748012,
-        -0.0140627429055849, 0.00832583108612983, 0.0199789996574662, 0.0129539613312175, -0.00392357154067098,
-        -0.0149937833567458, -0.0117450230972097, 0.00100794601937544, 0.0112252366103502, 0.0105568267498244,
-        0.00100506585230833, -0.00828980690747116, -0.00957308706102434, -0.00256089459687806, 0.00607122438794847,
-        0.00931287499494599, 0.00458778315123943, -0.00507069946874753, -0.0127160802769717, -0.00738784532410977,
-        0.0308750527800459, -0.0117092317869676,
-    };
-
-    short[] output = new short[input.length - c.length];
-
-    int inIndex = c.length;
-    int outIndex = 0;
-
-    while (inIndex < input.length) {
-      double y = 0;
-      for (int i = 0; i < c.length; i++) {
-        y += input[inIndex - i] * c[i];
-      }
-
-      inIndex++;
-      output[outIndex++] = (short) Math.round(y);
-    }
-
-    return output;
-  }
-
-  private short[] downsample441to16(short[] input) {
-    double[] interpolated = this.interpolate(input);
-    short[] filtered = this.lowPassFilter(interpolated);
-    short[] output = this.downsampleByN(filtered, 3);
-
-    return output;
-  }
-
   private File getStorageDirectory() {
     // Get the directory for the app's private files
     File file = new File(this.getReactApplicationContext().getFilesDir().getAbsolutePath());
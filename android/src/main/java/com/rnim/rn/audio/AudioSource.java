@@ -0,0 +1,23 @@
+package com.rnim.rn.audio;
+
+/**
+ * A stream of mono 16-bit PCM samples for AudioCapture to read from.
+ * AudioRecordSource is the device implementation; the tests replay
+ * recorded or synthetic audio through ReplayAudioSource.
+ */
+interface AudioSource {
+  int getSampleRate();
+
+  void start();
+
+  /**
+   * Blocks until audio is available, like AudioRecord.read.
+   * @return the number of samples read, which may be less than length, or a
+   * negative error code
+   */
+  int read(short[] buffer, int offset, int length);
+
+  void stop();
+
+  void release();
+}
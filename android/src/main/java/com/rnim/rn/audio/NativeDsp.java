@@ -0,0 +1,41 @@
+package com.rnim.rn.audio;
+
+/**
+ * Native versions of the resampling kernels in WavConverter.
+ * Callers should check isAvailable() and fall back to the Java
+ * implementation when the library couldn't be loaded.
+ */
+class NativeDsp {
+  private static final boolean available;
+
+  static {
+    boolean loaded = false;
+    try {
+      System.loadLibrary("rnaudio-dsp");
+      loaded = true;
+    } catch (UnsatisfiedLinkError e) {
+      // fall back to the Java implementation
+    }
+    available = loaded;
+  }
+
+  private NativeDsp() {
+  }
+
+  public static boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * @return the kernel picked for this CPU when the library loaded: "neon", "sse" or "scalar"
+   */
+  public static native String kernelName();
+
+  /**
+   * Float32 equivalent of WavConverter.downsample441to16. Results
+   * agree with the Java path to within one LSB.
+   * @return the 16kHz samples, or null if memory couldn't be allocated; no
+   * exception is left pending in that case
+   */
+  public static native short[] downsample441to16(short[] input);
+}
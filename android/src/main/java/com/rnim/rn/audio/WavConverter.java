@@ -0,0 +1,221 @@
+package com.rnim.rn.audio;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Converts a finished raw PCM recording to a 16kHz WAVE file.
+ */
+class WavConverter {
+  private WavConverter() {
+  }
+
+  public static void rawToWave(final File rawFile, final File waveFile, final int sampleRate) throws IOException {
+
+    byte[] rawData = new byte[(int) rawFile.length()];
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new FileInputStream(rawFile));
+      input.read(rawData);
+    } finally {
+      if (input != null) {
+        input.close();
+      }
+    }
+
+    DataOutputStream output = null;
+    try {
+      // Audio data (conversion big endian -> little endian)
+      short[] shorts = new short[rawData.length / 2];
+        ByteBuffer
+          .wrap(rawData)
+          .order(ByteOrder.LITTLE_ENDIAN)
+          .asShortBuffer()
+          .get(shorts);
+
+      // Prepare the (possibly resampled) output audio data
+      short[] resampledShorts = resampleTo16kHz(shorts, sampleRate);
+
+        ByteBuffer bytes = ByteBuffer
+          .allocate(resampledShorts.length * 2)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      for (short s : resampledShorts) {
+        bytes.putShort(s);
+      }
+
+      // We always resample to this rate now.
+      final int outputSampleRate = 16000;
+      int outputSize = bytes.capacity();
+
+      output = new DataOutputStream(new FileOutputStream(waveFile));
+      // WAVE header
+      // see http://ccrma.stanford.edu/courses/422/projects/WaveFormat/
+      writeString(output, "RIFF"); // chunk id
+      writeInt(output, 36 + outputSize); // chunk size
+      writeString(output, "WAVE"); // format
+      writeString(output, "fmt "); // subchunk 1 id
+      writeInt(output, 16); // subchunk 1 size
+      writeShort(output, (short) 1); // audio format (1 = PCM)
+      writeShort(output, (short) 1); // number of channels
+      writeInt(output, outputSampleRate); // sample rate
+      writeInt(output, outputSampleRate * 2); // byte rate
+      writeShort(output, (short) 2); // block align
+      writeShort(output, (short) 16); // bits per sample
+      writeString(output, "data"); // subchunk 2 id
+      writeInt(output, outputSize); // subchunk 2 size
+
+      output.write(bytes.array());
+    } finally {
+      if (output != null) {
+        output.close();
+      }
+    }
+  }
+
+  private static void writeInt(final DataOutputStream output, final int value) throws IOException {
+    output.write(value >> 0);
+    output.write(value >> 8);
+    output.write(value >> 16);
+    output.write(value >> 24);
+  }
+
+  private static void writeShort(final DataOutputStream output, final short value) throws IOException {
+    output.write(value >> 0);
+    output.write(value >> 8);
+  }
+
+  private static void writeString(final DataOutputStream output, final String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      output.write(value.charAt(i));
+    }
+  }
+
+  private static short[] resampleTo16kHz(short[] input, int sampleRate) {
+    switch (sampleRate) {
+    case 16000:
+    default:
+      return input;
+
+    case 48000:
+      return downsampleByN(input, 3);
+
+    case 44100:
+      return downsample441to16(input);
+    }
+  }
+
+  private static short[] downsampleByN(short[] input, int factor) {
+    short[] output = new short[input.length / factor];
+
+    for (int i = 0; i < output.length; i++) {
+      output[i] = input[i * factor];
+    }
+
+    return output;
+  }
+
+  private static double[] interpolate(short[] input) {
+    long outputSamples = (input.length * 48000L) / 44100L;
+    double[] output = new double[(int) outputSamples];
+
+    final double inRate = 44100;
+    final double inPeriod = 1.0 / inRate;
+    final double outPeriod = 1.0 / 48000;
+
+    int inIndex = 0;
+    int outIndex = 0;
+
+    while (inIndex < (input.length - 1) && outIndex < output.length) {
+
+      // increment inIndex only as needed to keep it directly adjacent to the current
+      // output point in time.
+      while (((inIndex + 1) * inPeriod) < (outIndex * outPeriod)) {
+        inIndex++;
+      }
+
+      // Just a precaution...
+      if (inIndex >= input.length - 1) {
+        inIndex = input.length - 2;
+      }
+
+      double x0 = inIndex * inPeriod;
+      double y0 = input[inIndex];
+      double y1 = input[inIndex + 1];
+
+      double x = outIndex * outPeriod;
+      double y = y0 + (x - x0) * inRate * (y1 - y0);
+
+      output[outIndex++] = y;
+    }
+
+    return output;
+  }
+
+  private static short[] lowPassFilter(double[] input) {
+    final double[] c = new double[] {
+        -0.0117092317869676, 0.0308750527800459, -0.00738784532410977, -0.0127160802769717, -0.00507069946874753,
+        0.00458778315123943, 0.00931287499494599, 0.00607122438794847, -0.00256089459687806, -0.00957308706102434,
+        -0.00828980690747116, 0.00100506585230833, 0.0105568267498244, 0.0112252366103502, 0.00100794601937544,
+        -0.0117450230972097, -0.0149937833567458, -0.00392357154067098, 0.0129539613312175, 0.0199789996574662,
+        0.00832583108612983, -0.0140627429055849, -0.0269921317748012, -0.0153663212767268, 0.0149976483390043,
+        0.0381120598515691, 0.0281192005901666, -0.0157090309990863, -0.0605272748412227, -0.0588464738424515,
+        0.0161533750132946, 0.144915996973263, 0.267004511178648, 0.317029472426119, 0.267004511178648,
+        0.144915996973263, 0.0161533750132946, -0.0588464738424515, -0.0605272748412227, -0.0157090309990863,
+        0.0281192005901666, 0.0381120598515691, 0.0149976483390043, -0.0153663212767268, -0.0269921317748012,
+        -0.0140627429055849, 0.00832583108612983, 0.0199789996574662, 0.0129539613312175, -0.00392357154067098,
+        -0.0149937833567458, -0.0117450230972097, 0.00100794601937544, 0.0112252366103502, 0.0105568267498244,
+        0.00100506585230833, -0.00828980690747116, -0.00957308706102434, -0.00256089459687806, 0.00607122438794847,
+        0.00931287499494599, 0.00458778315123943, -0.00507069946874753, -0.0127160802769717, -0.00738784532410977,
+        0.0308750527800459, -0.0117092317869676,
+    };
+
+    // Too short to filter (under 1.5ms of audio); match the native path
+    if (input.length <= c.length) {
+      return new short[0];
+    }
+
+    short[] output = new short[input.length - c.length];
+
+    int inIndex = c.length;
+    int outIndex = 0;
+
+    while (inIndex < input.length) {
+      double y = 0;
+      for (int i = 0; i < c.length; i++) {
+        y += input[inIndex - i] * c[i];
+      }
+
+      inIndex++;
+      output[outIndex++] = (short) Math.round(y);
+    }
+
+    return output;
+  }
+
+  private static short[] downsample441to16(short[] input) {
+    if (NativeDsp.isAvailable()) {
+      short[] output = NativeDsp.downsample441to16(input);
+      if (output != null) {
+        return output;
+      }
+    }
+
+    return downsample441to16Java(input);
+  }
+
+  // Package-private so the tests can check NativeDsp against it
+  static short[] downsample441to16Java(short[] input) {
+    double[] interpolated = interpolate(input);
+    short[] filtered = lowPassFilter(interpolated);
+    short[] output = downsampleByN(filtered, 3);
+
+    return output;
+  }
+}
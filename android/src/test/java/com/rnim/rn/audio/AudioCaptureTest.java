@@ -0,0 +1,158 @@
+package com.rnim.rn.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Drives the recording loop with a scripted AudioSource, so every read
+ * result is known up front.
+ */
+public class AudioCaptureTest {
+  private static final int BUFFER_ELEMENTS = 4;
+
+  private final AtomicBoolean isRecording = new AtomicBoolean(true);
+
+  /**
+   * Returns the scripted read results in order, filling each read with
+   * consecutive sample values. Clears the recording flag once the script
+   * runs out, the way stopRecording does.
+   */
+  private class ScriptedSource implements AudioSource {
+    private final int[] results;
+    private int reads;
+    private short next = 1;
+
+    ScriptedSource(int... results) {
+      this.results = results;
+    }
+
+    @Override
+    public int getSampleRate() {
+      return 44100;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public int read(short[] buffer, int offset, int length) {
+      if (reads == results.length) {
+        isRecording.set(false);
+        return 0;
+      }
+      int result = results[reads++];
+      for (int i = 0; i < result; i++) {
+        buffer[offset + i] = next++;
+      }
+      return result;
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void release() {
+    }
+  }
+
+  private static class RecordingListener implements AudioCapture.Listener {
+    final List<Integer> written = new ArrayList<>();
+    final List<Integer> failed = new ArrayList<>();
+
+    @Override
+    public void onChunkWritten(int samples) {
+      written.add(samples);
+    }
+
+    @Override
+    public void onWriteFailed(int samples, IOException e) {
+      failed.add(samples);
+    }
+  }
+
+  @Test
+  public void shortReadWritesOnlyWhatWasRead() {
+    ScriptedSource source = new ScriptedSource(BUFFER_ELEMENTS, 1, 3);
+    AudioCapture capture = new AudioCapture(source, isRecording, BUFFER_ELEMENTS);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    assertEquals(0, capture.writeAudioData(os));
+
+    byte[] expected = new byte[(BUFFER_ELEMENTS + 1 + 3) * 2];
+    for (int i = 0; i < expected.length / 2; i++) {
+      expected[i * 2] = (byte) (i + 1); // little endian, high byte stays 0
+    }
+    assertArrayEquals(expected, os.toByteArray());
+    assertEquals(3, source.reads);
+  }
+
+  @Test
+  public void negativeReadEndsLoopWithCode() {
+    ScriptedSource source = new ScriptedSource(BUFFER_ELEMENTS, -6, BUFFER_ELEMENTS);
+    AudioCapture capture = new AudioCapture(source, isRecording, BUFFER_ELEMENTS);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    assertEquals(-6, capture.writeAudioData(os));
+
+    assertEquals(BUFFER_ELEMENTS * 2, os.size());
+    assertEquals(2, source.reads);
+  }
+
+  @Test
+  public void stoppedFlagEndsLoop() {
+    ScriptedSource source = new ScriptedSource(BUFFER_ELEMENTS, BUFFER_ELEMENTS);
+    AudioCapture capture = new AudioCapture(source, isRecording, BUFFER_ELEMENTS);
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+    assertEquals(0, capture.writeAudioData(os));
+    assertEquals(2 * BUFFER_ELEMENTS * 2, os.size());
+
+    // already stopped: nothing is read at all
+    ScriptedSource unread = new ScriptedSource(BUFFER_ELEMENTS);
+    capture = new AudioCapture(unread, isRecording, BUFFER_ELEMENTS);
+    assertEquals(0, capture.writeAudioData(new ByteArrayOutputStream()));
+    assertEquals(0, unread.reads);
+  }
+
+  @Test
+  public void failedWriteIsReportedInsteadOfWritten() {
+    ScriptedSource source = new ScriptedSource(BUFFER_ELEMENTS, 2, BUFFER_ELEMENTS);
+    AudioCapture capture = new AudioCapture(source, isRecording, BUFFER_ELEMENTS);
+    RecordingListener listener = new RecordingListener();
+    capture.setListener(listener);
+    OutputStream os = new OutputStream() {
+      private int writes;
+
+      @Override
+      public void write(int b) throws IOException {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        if (++writes == 2) {
+          throw new IOException("disk full");
+        }
+      }
+    };
+
+    assertEquals(0, capture.writeAudioData(os));
+
+    assertEquals(2, listener.written.size());
+    assertEquals(BUFFER_ELEMENTS, (int) listener.written.get(0));
+    assertEquals(BUFFER_ELEMENTS, (int) listener.written.get(1));
+    assertEquals(1, listener.failed.size());
+    assertEquals(2, (int) listener.failed.get(0));
+  }
+}
@@ -0,0 +1,50 @@
+package com.rnim.rn.audio;
+
+import java.util.Random;
+
+/**
+ * Times the Java and native 44.1kHz to 16kHz resamplers on the same input.
+ * From the app's android/ directory:
+ *
+ *   ./gradlew :react-native-audio:dspBenchmark -PbenchmarkMinutes=10
+ */
+public class DspBenchmark {
+  private static final int SAMPLE_RATE = 44100;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) {
+    double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+
+    Random random = new Random(1);
+    short[] input = new short[(int) (minutes * 60 * SAMPLE_RATE)];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (short) Math.round(6000 * random.nextGaussian());
+    }
+
+    System.out.printf("Resampling %.1f minutes of 44.1kHz audio, best of %d%n", minutes, ROUNDS);
+    long javaNanos = time(input, false);
+    System.out.printf("java:   %8.1f ms%n", javaNanos / 1e6);
+
+    if (!NativeDsp.isAvailable()) {
+      System.out.println("native: rnaudio-dsp not found on java.library.path; run buildHostDsp");
+      return;
+    }
+    long nativeNanos = time(input, true);
+    System.out.printf("%-7s %8.1f ms (%.1fx)%n", NativeDsp.kernelName() + ":", nativeNanos / 1e6,
+        javaNanos / (double) nativeNanos);
+  }
+
+  private static long time(short[] input, boolean useNative) {
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      if (useNative) {
+        NativeDsp.downsample441to16(input);
+      } else {
+        WavConverter.downsample441to16Java(input);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return best;
+  }
+}
@@ -0,0 +1,85 @@
+package com.rnim.rn.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the native resampler agrees with the Java one in WavConverter
+ * to within one LSB. Needs the host build of rnaudio-dsp on
+ * java.library.path, which the Gradle unit test tasks set up when cmake is
+ * available; otherwise the tests are skipped.
+ */
+public class NativeDspTest {
+  // Short lengths straddle the filter length, where both paths return nothing
+  private static final int[] LENGTHS = new int[] {
+    0, 1, 2, 60, 61, 62, 63, 64, 65, 66, 67, 68, 69, 70, 1000, 44100
+  };
+
+  private final Random random = new Random(1);
+
+  @Before
+  public void requireNativeLibrary() {
+    String message = "rnaudio-dsp not found on java.library.path; run buildHostDsp (needs cmake)";
+    if (Boolean.getBoolean("rnaudio.requireNativeDsp")) {
+      // the library was built for this run, so failing to load it is a bug
+      assertTrue(message, NativeDsp.isAvailable());
+    } else {
+      assumeTrue(message, NativeDsp.isAvailable());
+    }
+  }
+
+  @Test
+  public void randomInput() {
+    for (int length : LENGTHS) {
+      short[] input = new short[length];
+      for (int i = 0; i < length; i++) {
+        input[i] = (short) Math.round(6000 * random.nextGaussian());
+      }
+      assertAgrees(input);
+    }
+  }
+
+  @Test
+  public void sineInput() {
+    for (int length : LENGTHS) {
+      short[] input = new short[length];
+      for (int i = 0; i < length; i++) {
+        input[i] = (short) Math.round(12000 * Math.sin(2 * Math.PI * 440 * i / 44100));
+      }
+      assertAgrees(input);
+    }
+  }
+
+  @Test
+  public void fullScaleInput() {
+    for (int length : LENGTHS) {
+      short[] square = new short[length];
+      short[] noise = new short[length];
+      for (int i = 0; i < length; i++) {
+        square[i] = (i / 20) % 2 == 0 ? Short.MAX_VALUE : Short.MIN_VALUE;
+        noise[i] = (short) random.nextInt(1 << 16);
+      }
+      assertAgrees(square);
+      assertAgrees(noise);
+    }
+  }
+
+  private static void assertAgrees(short[] input) {
+    short[] expected = WavConverter.downsample441to16Java(input);
+    short[] actual = NativeDsp.downsample441to16(input);
+
+    assertEquals("output length for " + input.length + " samples", expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      // Both paths wrap on overflow, so compare in 16 bits
+      int difference = Math.abs((short) (actual[i] - expected[i]));
+      assertTrue("sample " + i + " of " + input.length + ": expected " + expected[i] + " but was " + actual[i],
+          difference <= 1);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.rnim.rn.audio;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AudioSource that replays a fixed set of samples in a loop, paced like a
+ * real microphone. Samples become available at the sample rate (times the
+ * speed factor) from start(). If the reader falls further behind than the
+ * buffer size the oldest samples are dropped, the same way an AudioRecord
+ * overruns. Like AudioRecord.read, a read blocks until it has filled the
+ * request, however small the buffer is.
+ *
+ * Jitter, short reads and stalls can be injected to reproduce
+ * badly-behaved devices. Injected delays are in simulated time, so they
+ * shrink along with everything else when speed is raised. All randomness
+ * comes from the seed, so a run can be repeated exactly.
+ */
+class ReplayAudioSource implements AudioSource {
+  private final short[] samples;
+  private final int sampleRate;
+  private final Random random;
+
+  private int bufferSamples;
+  private double speed = 1.0;
+  private int maxJitterMillis;
+  private double shortReadProbability;
+  private double stallProbability;
+  private int stallMillis;
+
+  private volatile boolean running;
+  private long startNanos;
+  private long position; // samples consumed or dropped since start()
+  private long droppedSamples;
+  private long hostDroppedSamples;
+  private long shortReads;
+  private boolean delayInjected;
+  private long lastCaptureNanos;
+
+  public ReplayAudioSource(short[] samples, int sampleRate, long seed) {
+    if (samples.length == 0) {
+      throw new IllegalArgumentException("Need at least one sample to replay");
+    }
+    this.samples = samples;
+    this.sampleRate = sampleRate;
+    this.random = new Random(seed);
+    // Roughly what AudioRecord gives us by default: 100ms of audio
+    this.bufferSamples = sampleRate / 10;
+  }
+
+  /**
+   * Loads a raw recording as written by AudioCapture: mono, 16-bit, little endian.
+   */
+  public static ReplayAudioSource fromPcmFile(File file, int sampleRate, long seed) throws IOException {
+    byte[] rawData = new byte[(int) file.length()];
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new FileInputStream(file));
+      input.readFully(rawData);
+    } finally {
+      if (input != null) {
+        input.close();
+      }
+    }
+
+    short[] shorts = new short[rawData.length / 2];
+    ByteBuffer
+      .wrap(rawData)
+      .order(ByteOrder.LITTLE_ENDIAN)
+      .asShortBuffer()
+      .get(shorts);
+    return new ReplayAudioSource(shorts, sampleRate, seed);
+  }
+
+  /**
+   * One second of a sine tone with a little noise on top.
+   */
+  public static ReplayAudioSource synthetic(int sampleRate, double frequency, long seed) {
+    Random noise = new Random(seed);
+    short[] shorts = new short[sampleRate];
+    for (int i = 0; i < shorts.length; i++) {
+      double y = 8000 * Math.sin(2 * Math.PI * frequency * i / sampleRate) + 500 * noise.nextGaussian();
+      shorts[i] = (short) Math.round(y);
+    }
+    return new ReplayAudioSource(shorts, sampleRate, seed);
+  }
+
+  /**
+   * @param bufferSamples how far the reader can fall behind before samples are dropped
+   */
+  public void setBufferSamples(int bufferSamples) {
+    if (bufferSamples < 1) {
+      throw new IllegalArgumentException("Buffer must hold at least one sample");
+    }
+    this.bufferSamples = bufferSamples;
+  }
+
+  /**
+   * @param speed how much faster than real time audio is produced
+   */
+  public void setSpeed(double speed) {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("Speed must be positive");
+    }
+    this.speed = speed;
+  }
+
+  /**
+   * @param maxJitterMillis upper bound of the random delay added before each read returns
+   */
+  public void setMaxJitterMillis(int maxJitterMillis) {
+    this.maxJitterMillis = maxJitterMillis;
+  }
+
+  /**
+   * @param shortReadProbability chance that a read returns fewer samples than asked for
+   */
+  public void setShortReadProbability(double shortReadProbability) {
+    this.shortReadProbability = shortReadProbability;
+  }
+
+  /**
+   * Occasionally block a read for a long time, like a device doing I/O on
+   * the audio thread.
+   */
+  public void setStall(double probability, int millis) {
+    this.stallProbability = probability;
+    this.stallMillis = millis;
+  }
+
+  public long getDroppedSamples() {
+    return droppedSamples;
+  }
+
+  /**
+   * @return samples dropped when no delay had been injected since the
+   * previous read, i.e. overruns caused by the reader or the host itself
+   */
+  public long getHostDroppedSamples() {
+    return hostDroppedSamples;
+  }
+
+  /**
+   * Tells the source that the reader was held up on purpose, e.g. by a
+   * simulated slow disk, so overruns seen on the next read are attributed
+   * to it rather than to the host.
+   */
+  public void noteInjectedDelay() {
+    delayInjected = true;
+  }
+
+  public long getShortReads() {
+    return shortReads;
+  }
+
+  /**
+   * @return nanoTime() at which the newest sample of the last read
+   * became available
+   */
+  public long getLastCaptureNanos() {
+    return lastCaptureNanos;
+  }
+
+  @Override
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  @Override
+  public void start() {
+    position = 0;
+    startNanos = nanoTime();
+    running = true;
+  }
+
+  @Override
+  public int read(short[] buffer, int offset, int length) {
+    if (!running) {
+      return 0;
+    }
+
+    int wanted = length;
+    if (length > 1 && random.nextDouble() < shortReadProbability) {
+      wanted = 1 + random.nextInt(length - 1);
+      shortReads++;
+    }
+    int jitterMillis = maxJitterMillis > 0 ? random.nextInt(maxJitterMillis + 1) : 0;
+    if (jitterMillis > 0) {
+      sleepNanos((long) (jitterMillis * 1e6 / speed));
+      delayInjected = true;
+    }
+    if (stallMillis > 0 && random.nextDouble() < stallProbability) {
+      sleepNanos((long) (stallMillis * 1e6 / speed));
+      delayInjected = true;
+    }
+
+    int copied = 0;
+    while (running && copied < wanted) {
+      long available = produced() - position;
+      if (available > bufferSamples) {
+        long overrun = available - bufferSamples;
+        droppedSamples += overrun;
+        if (!delayInjected) {
+          hostDroppedSamples += overrun;
+        }
+        position += overrun;
+        available = bufferSamples;
+      }
+      if (available == 0) {
+        sleepNanos(samplesToNanos(wanted - copied));
+        continue;
+      }
+
+      int count = (int) Math.min(available, wanted - copied);
+      for (int i = 0; i < count; i++) {
+        buffer[offset + copied + i] = samples[(int) ((position + i) % samples.length)];
+      }
+      position += count;
+      copied += count;
+    }
+    delayInjected = false;
+
+    if (copied > 0) {
+      lastCaptureNanos = startNanos + samplesToNanos(position);
+    }
+    return copied;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public void release() {
+    running = false;
+  }
+
+  private long produced() {
+    return (long) ((nanoTime() - startNanos) * speed * sampleRate / 1e9);
+  }
+
+  private long samplesToNanos(long count) {
+    return (long) (count * 1e9 / (sampleRate * speed));
+  }
+
+  // Overridden by the tests to run against a fake clock
+  long nanoTime() {
+    return System.nanoTime();
+  }
+
+  void sleepNanos(long nanos) {
+    LockSupport.parkNanos(nanos);
+  }
+}
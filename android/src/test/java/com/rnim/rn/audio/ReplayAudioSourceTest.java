@@ -0,0 +1,99 @@
+package com.rnim.rn.audio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs ReplayAudioSource against a fake clock, so overruns happen exactly
+ * where the test puts them.
+ */
+public class ReplayAudioSourceTest {
+  private static final int SAMPLE_RATE = 1000; // one sample per millisecond
+
+  private long now;
+  private ReplayAudioSource source;
+
+  @Before
+  public void setUp() {
+    short[] samples = new short[SAMPLE_RATE];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = (short) i;
+    }
+    source = new ReplayAudioSource(samples, SAMPLE_RATE, 1) {
+      @Override
+      long nanoTime() {
+        return now;
+      }
+
+      @Override
+      void sleepNanos(long nanos) {
+        now += nanos;
+      }
+    };
+    source.setBufferSamples(100);
+    source.start();
+  }
+
+  @Test
+  public void overrunDropsOldestSamples() {
+    advanceMillis(250);
+    short[] buffer = new short[50];
+
+    assertEquals(50, source.read(buffer, 0, buffer.length));
+
+    // 250 produced, only the newest 100 fit in the buffer
+    assertEquals(150, source.getDroppedSamples());
+    assertEquals(150, source.getHostDroppedSamples());
+    assertSamplesFrom(150, buffer);
+
+    // the other 50 buffered samples are still there; no more drops
+    assertEquals(50, source.read(buffer, 0, buffer.length));
+    assertEquals(150, source.getDroppedSamples());
+    assertSamplesFrom(200, buffer);
+  }
+
+  @Test
+  public void injectedDelayIsNotCountedAsHostDrop() {
+    advanceMillis(250);
+    short[] buffer = new short[50];
+    source.read(buffer, 0, buffer.length);
+
+    source.noteInjectedDelay();
+    advanceMillis(300);
+    assertEquals(50, source.read(buffer, 0, buffer.length));
+
+    // 550 produced, 200 consumed before; 350 waiting, 250 of them dropped
+    assertEquals(400, source.getDroppedSamples());
+    assertEquals(150, source.getHostDroppedSamples());
+    assertSamplesFrom(450, buffer);
+  }
+
+  @Test
+  public void readBlocksUntilFilled() {
+    advanceMillis(50);
+    short[] buffer = new short[100];
+
+    assertEquals(100, source.read(buffer, 0, buffer.length));
+
+    assertEquals(0, source.getDroppedSamples());
+    assertSamplesFrom(0, buffer);
+    assertEquals(100L * 1000000, now);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroSpeed() {
+    source.setSpeed(0);
+  }
+
+  private void advanceMillis(long millis) {
+    now += millis * 1000000;
+  }
+
+  private static void assertSamplesFrom(int first, short[] buffer) {
+    for (int i = 0; i < buffer.length; i++) {
+      assertEquals("sample " + i, (short) (first + i), buffer[i]);
+    }
+  }
+}
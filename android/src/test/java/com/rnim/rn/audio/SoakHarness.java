@@ -0,0 +1,232 @@
+package com.rnim.rn.audio;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives simulated recordings through AudioCapture and WavConverter on a
+ * plain JVM and reports write latency, dropped samples and heap growth.
+ * Latencies and injected delays are in simulated time; finalize times are
+ * real. Drops are split into those that followed an injected delay and
+ * those that didn't; the latter come from the host (or a real regression)
+ * and should be zero on a clean run. Raising speed shrinks the buffer in
+ * wall time, so host scheduling noise starts to show up as drops.
+ *
+ * The capture pipeline has no Android dependencies, so it runs on the
+ * build machine. From the app's android/ directory:
+ *
+ *   ./gradlew :react-native-audio:soak -PsoakArgs="hours=2 shortReads=0.05 diskStallMs=200"
+ *
+ * When cmake is available that builds the host rnaudio-dsp first, so
+ * finalizing uses the native resampler.
+ *
+ * Options (key=value): hours, segmentMinutes, speed, rate, pcm (a raw
+ * recording to replay instead of the synthetic tone), bufferMs, jitterMs,
+ * shortReads, stallProb, stallMs, diskStallProb, diskStallMs, seed.
+ */
+public class SoakHarness {
+  private static final int BUFFER_ELEMENTS = 1024;
+  private static final int MIN_BUFFER_WALL_MILLIS = 20;
+
+  // Latency histogram in 0.1ms buckets up to 10s, allocated once so it
+  // doesn't show up as heap growth.
+  private static final int BUCKETS_PER_MS = 10;
+  private static final int MAX_LATENCY_MS = 10000;
+
+  private final int[] histogram = new int[MAX_LATENCY_MS * BUCKETS_PER_MS + 1];
+  private long chunks;
+  private long samplesWritten;
+  private long failedWrites;
+  private long samplesLost;
+  private long maxLatencyNanos;
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int split = arg.indexOf('=');
+      if (split < 0) {
+        throw new IllegalArgumentException("Expected key=value but got " + arg);
+      }
+      options.put(arg.substring(0, split), arg.substring(split + 1));
+    }
+    new SoakHarness().run(options);
+  }
+
+  private static double option(Map<String, String> options, String key, double fallback) {
+    return options.containsKey(key) ? Double.parseDouble(options.get(key)) : fallback;
+  }
+
+  private void run(Map<String, String> options) throws Exception {
+    final double hours = option(options, "hours", 1);
+    final double segmentMinutes = option(options, "segmentMinutes", 5);
+    final double speed = option(options, "speed", 4);
+    final int sampleRate = (int) option(options, "rate", 44100);
+    final long seed = (long) option(options, "seed", 1);
+
+    final ReplayAudioSource source;
+    if (options.containsKey("pcm")) {
+      source = ReplayAudioSource.fromPcmFile(new File(options.get("pcm")), sampleRate, seed);
+    } else {
+      source = ReplayAudioSource.synthetic(sampleRate, 440, seed);
+    }
+    final int bufferSamples = (int) (sampleRate * option(options, "bufferMs", 100) / 1000);
+    if (bufferSamples < BUFFER_ELEMENTS) {
+      throw new IllegalArgumentException("bufferMs must hold at least one " + BUFFER_ELEMENTS + " sample read");
+    }
+    source.setSpeed(speed);
+    source.setBufferSamples(bufferSamples);
+    source.setMaxJitterMillis((int) option(options, "jitterMs", 0));
+    source.setShortReadProbability(option(options, "shortReads", 0));
+    source.setStall(option(options, "stallProb", 0), (int) option(options, "stallMs", 0));
+
+    final double diskStallProbability = option(options, "diskStallProb", 0.01);
+    final int diskStallMillis = (int) option(options, "diskStallMs", 0);
+    final Random diskRandom = new Random(seed + 1);
+
+    int segments = Math.max(1, (int) Math.round(hours * 60 / segmentMinutes));
+    long segmentWallNanos = (long) (segmentMinutes * 60e9 / speed);
+
+    File directory = new File(System.getProperty("java.io.tmpdir"), "rnaudio-soak");
+    directory.mkdirs();
+    File rawFile = new File(directory, "soak.pcm");
+    File waveFile = new File(directory, "soak.wav");
+
+    System.out.printf("Simulating %d x %.1f minute recordings at %d Hz, %.0fx real time, %s resampler%n",
+        segments, segmentMinutes, sampleRate, speed, NativeDsp.isAvailable() ? NativeDsp.kernelName() : "java");
+    double bufferWallMillis = bufferSamples * 1000.0 / sampleRate / speed;
+    if (bufferWallMillis < MIN_BUFFER_WALL_MILLIS) {
+      System.out.printf("WARNING: the buffer is only %.1f ms of wall time at this speed; host scheduling "
+          + "noise will be reported as drops and latency%n", bufferWallMillis);
+    }
+
+    final AtomicBoolean isRecording = new AtomicBoolean(false);
+    AudioCapture capture = new AudioCapture(source, isRecording, BUFFER_ELEMENTS);
+    capture.setListener(new AudioCapture.Listener() {
+      @Override
+      public void onChunkWritten(int samples) {
+        record((long) ((System.nanoTime() - source.getLastCaptureNanos()) * speed), samples);
+      }
+
+      @Override
+      public void onWriteFailed(int samples, IOException e) {
+        failedWrites++;
+        samplesLost += samples;
+      }
+    });
+
+    long baselineHeap = 0;
+    long maxFinalizeNanos = 0;
+    for (int segment = 0; segment < segments; segment++) {
+      final OutputStream os = new SlowOutputStream(new FileOutputStream(rawFile), source, diskRandom,
+          diskStallProbability, (long) (diskStallMillis * 1e6 / speed));
+      final AudioCapture segmentCapture = capture;
+
+      isRecording.set(true);
+      source.start();
+      Thread recordingThread = new Thread(new Runnable() {
+        public void run() {
+          segmentCapture.writeAudioData(os);
+        }
+      }, "AudioRecorder Thread");
+      recordingThread.start();
+
+      LockSupport.parkNanos(segmentWallNanos);
+      isRecording.set(false);
+      source.stop();
+      recordingThread.join();
+      os.close();
+
+      long finalizeStart = System.nanoTime();
+      WavConverter.rawToWave(rawFile, waveFile, sampleRate);
+      maxFinalizeNanos = Math.max(maxFinalizeNanos, System.nanoTime() - finalizeStart);
+
+      long heap = usedHeapAfterGc();
+      if (segment == 0) {
+        baselineHeap = heap;
+      }
+      System.out.printf("segment %d/%d: heap %.1f MB, dropped %d samples%n",
+          segment + 1, segments, heap / 1e6, source.getDroppedSamples());
+    }
+
+    long finalHeap = usedHeapAfterGc();
+    rawFile.delete();
+    waveFile.delete();
+
+    System.out.println();
+    System.out.printf("audio written:   %.2f hours (%d chunks)%n", samplesWritten / (double) sampleRate / 3600, chunks);
+    System.out.printf("dropped samples: %d (%.4f%%)%n", source.getDroppedSamples(),
+        100.0 * source.getDroppedSamples() / Math.max(1, samplesWritten + source.getDroppedSamples()));
+    System.out.printf("  not injected:  %d (host scheduling or the pipeline itself)%n", source.getHostDroppedSamples());
+    System.out.printf("failed writes:   %d (%d samples lost)%n", failedWrites, samplesLost);
+    System.out.printf("short reads:     %d%n", source.getShortReads());
+    System.out.printf("write latency:   p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms%n",
+        percentile(0.5), percentile(0.9), percentile(0.99), percentile(0.999), maxLatencyNanos / 1e6);
+    System.out.printf("finalize:        max %.1f ms per %.1f minute recording%n", maxFinalizeNanos / 1e6, segmentMinutes);
+    System.out.printf("heap growth:     %.2f MB (%.1f MB after first recording, %.1f MB at end)%n",
+        (finalHeap - baselineHeap) / 1e6, baselineHeap / 1e6, finalHeap / 1e6);
+  }
+
+  private void record(long latencyNanos, int samples) {
+    chunks++;
+    samplesWritten += samples;
+    maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+    long bucket = latencyNanos * BUCKETS_PER_MS / 1000000;
+    histogram[(int) Math.max(0, Math.min(bucket, histogram.length - 1))]++;
+  }
+
+  private double percentile(double fraction) {
+    long target = (long) Math.ceil(chunks * fraction);
+    long seen = 0;
+    for (int i = 0; i < histogram.length; i++) {
+      seen += histogram[i];
+      if (seen >= target && seen > 0) {
+        return i / (double) BUCKETS_PER_MS;
+      }
+    }
+    return 0;
+  }
+
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Stalls some writes to imitate slow or contended storage.
+   */
+  private static class SlowOutputStream extends FilterOutputStream {
+    private final ReplayAudioSource source;
+    private final Random random;
+    private final double stallProbability;
+    private final long stallNanos;
+
+    SlowOutputStream(OutputStream out, ReplayAudioSource source, Random random, double stallProbability,
+        long stallNanos) {
+      super(out);
+      this.source = source;
+      this.random = random;
+      this.stallProbability = stallProbability;
+      this.stallNanos = stallNanos;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if (stallNanos > 0 && random.nextDouble() < stallProbability) {
+        LockSupport.parkNanos(stallNanos);
+        source.noteInjectedDelay();
+      }
+      out.write(b, off, len);
+    }
+  }
+}